@@ -0,0 +1,55 @@
+/*
+ * A beat grid for a steady tempo, kept in nanoseconds. Every beat's time is 
+ * computed from the time of the first beat, rather than by adding up beat 
+ * lengths, so rounding never builds up over a long melody. The Piano uses 
+ * this class to schedule auto-played notes and metronome clicks, and to 
+ * measure how far the user's notes are from the beat.
+ */
+public class BeatClock {
+
+    private long start;
+    private int bpm;
+
+    /**
+     * Starts a new beat grid.
+     * @param startNanos the time of the first beat, from System.nanoTime()
+     * @param bpm the tempo, in beats per minute
+     */
+    public void start(long startNanos, int bpm) {
+        if (bpm <= 0)
+            throw new IllegalArgumentException();
+        start = startNanos;
+        this.bpm = bpm;
+    }
+
+    /**
+     * Moves the whole beat grid later, e.g. to carry on after a delay.
+     * @param nanos how far to move the grid, in nanoseconds
+     */
+    public void delay(long nanos) {
+        start += nanos;
+    }
+
+    /**
+     * Returns the time of a beat.
+     * @param beat the index of the beat (0 = first beat)
+     * @return the time of the beat, comparable with System.nanoTime()
+     */
+    public long getBeatTime(int beat) {
+        return start + beat * NANOS_PER_MINUTE / bpm;
+    }
+
+    /**
+     * Returns how far a time is from the nearest beat.
+     * @param nanos the time, from System.nanoTime()
+     * @return the offset from the nearest beat in nanoseconds; negative if 
+     * the time is before the beat
+     */
+    public long getOffset(long nanos) {
+        long sinceStart = (nanos - start) * bpm;
+        long nearest = Math.round((double) sinceStart / NANOS_PER_MINUTE);
+        return (sinceStart - nearest * NANOS_PER_MINUTE) / bpm;
+    }
+
+    private static final long NANOS_PER_MINUTE = 60000000000L;
+}
@@ -0,0 +1,50 @@
+/*
+ * An exercise in which the piano plays the notes of a chord from the 
+ * bottom up, and the user names the chord's quality.
+ */
+public class ChordExercise implements Exercise {
+
+    private int root;
+    private int answer;
+
+    @Override
+    public String getName() {
+        return "Chords";
+    }
+
+    @Override
+    public String[] getAnswers() {
+        return QUALITIES.clone();
+    }
+
+    @Override
+    public void createQuestion(int root) {
+        this.root = root;
+        answer = (int) (Math.random()*QUALITIES.length);
+    }
+
+    @Override
+    public int getNoteCount() {
+        return CHORDS[answer].length;
+    }
+
+    @Override
+    public int getNote(int index) {
+        return root + CHORDS[answer][index];
+    }
+
+    @Override
+    public boolean isCorrectAnswer(int answer) {
+        return answer == this.answer;
+    }
+
+    private static final String[] QUALITIES = {"Major", "Minor", 
+            "Diminished", "Augmented", "Major 7th", "Minor 7th", 
+            "Dominant 7th", "Half-Diminished 7th", "Diminished 7th"};
+
+    // semitones above the root for each quality, in the same order
+    private static final int[][] CHORDS = {
+            {0, 4, 7}, {0, 3, 7}, {0, 3, 6}, {0, 4, 8}, 
+            {0, 4, 7, 11}, {0, 3, 7, 10}, {0, 4, 7, 10}, {0, 3, 6, 10}, 
+            {0, 3, 6, 9}};
+}
@@ -0,0 +1,48 @@
+/*
+ * An ear-training exercise that asks the user to identify something they 
+ * hear (e.g., an interval or a chord). Each question is a short series of 
+ * notes for the piano to play, and the user picks one of a fixed list of 
+ * answers. Implementations keep their answers and note patterns in 
+ * lookup tables, so creating and grading a question takes constant time.
+ * Each instance keeps its own question, so several can be used at once.
+ */
+public interface Exercise {
+
+    /**
+     * Returns the display name of this exercise.
+     * @return the display name of this exercise
+     */
+    String getName();
+
+    /**
+     * Returns the answers the user can choose from, in order.
+     * @return the answers the user can choose from
+     */
+    String[] getAnswers();
+
+    /**
+     * Creates a new random question.
+     * @param root the ID of the piano key the question starts on
+     */
+    void createQuestion(int root);
+
+    /**
+     * Returns the number of notes in the current question.
+     * @return the number of notes in the current question
+     */
+    int getNoteCount();
+
+    /**
+     * Returns a note of the current question.
+     * @param index the index of the note (0 = first note)
+     * @return the ID of the piano key to play
+     */
+    int getNote(int index);
+
+    /**
+     * Returns true if an answer is correct for the current question.
+     * @param answer the index of the chosen answer
+     * @return whether the answer is correct
+     */
+    boolean isCorrectAnswer(int answer);
+}
@@ -0,0 +1,51 @@
+/*
+ * An exercise in which the piano plays two notes, one after the other, 
+ * and the user names the interval between them.
+ */
+public class IntervalExercise implements Exercise {
+
+    private int root;
+    private int answer;
+
+    @Override
+    public String getName() {
+        return "Intervals";
+    }
+
+    @Override
+    public String[] getAnswers() {
+        return INTERVALS.clone();
+    }
+
+    @Override
+    public void createQuestion(int root) {
+        this.root = root;
+        answer = (int) (Math.random()*INTERVALS.length);
+    }
+
+    @Override
+    public int getNoteCount() {
+        return 2;
+    }
+
+    @Override
+    public int getNote(int index) {
+        if (index == 0) {
+            return root;
+        } else if (index == 1) {
+            return root + SEMITONES[answer];
+        } else {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    @Override
+    public boolean isCorrectAnswer(int answer) {
+        return answer == this.answer;
+    }
+
+    private static final String[] INTERVALS = {"Minor 2nd", "Major 2nd", 
+            "Minor 3rd", "Major 3rd", "Perfect 4th", "Tritone", "Perfect 5th", 
+            "Minor 6th", "Major 6th", "Minor 7th", "Major 7th", "Octave"};
+    private static final int[] SEMITONES = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+}
@@ -9,8 +9,13 @@ public class MIDISynth {
 
     private Synthesizer synth;
     private MidiChannel channel;
+    private MidiChannel clickChannel;
     private int noteNumber;
 
+    // whether a note is on, and when the last one was turned off
+    private boolean isPlaying;
+    private long stopTime;
+
     /**
      * Create a new MIDISynth object for generating sound.
      * @throws Exception if the operating system's MIDI synthesizer could 
@@ -21,6 +26,7 @@ public class MIDISynth {
             // Get synthesizer and open it
             synth = MidiSystem.getSynthesizer();
             synth.open();
+            stopTime = System.nanoTime();
 
             // Get array of channels
             MidiChannel channels[] = synth.getChannels();
@@ -32,6 +38,10 @@ public class MIDISynth {
                     break;
                 }
             }
+
+            // Use the percussion channel for metronome clicks, if there is one
+            if (channels.length > PERCUSSION_CHANNEL)
+                clickChannel = channels[PERCUSSION_CHANNEL];
         } catch (Exception e) {
             throw new Exception();
         }
@@ -44,6 +54,7 @@ public class MIDISynth {
     public void playNote(int keyID) {
         noteNumber = keyID + LOW_C_NOTE_NUMBER;
         channel.noteOn(noteNumber, VELOCITY);
+        isPlaying = true;
     }
 
     /**
@@ -51,8 +62,37 @@ public class MIDISynth {
      */
     public void stopNote() {
         channel.noteOff(noteNumber);
+        if (isPlaying)
+            stopTime = System.nanoTime();
+        isPlaying = false;
+    }
+
+    /**
+     * Returns true if no note has been on for a while, so that the sound 
+     * has died away. Metronome clicks are not counted, since they sound 
+     * on every beat; the Piano checks sung notes against the beat instead.
+     * @param releaseNanos how long a note takes to die away, in nanoseconds
+     * @return true if no note has been on for the release time
+     */
+    public boolean isQuiet(long releaseNanos) {
+        return !isPlaying && System.nanoTime() - stopTime >= releaseNanos;
+    }
+
+    /**
+     * Generates a metronome click on a separate channel from the notes.
+     * @param accent whether the click is on the first beat of a bar
+     */
+    public void playClick(boolean accent) {
+        if (clickChannel != null) {
+            clickChannel.noteOff(ACCENT_CLICK);
+            clickChannel.noteOff(CLICK);
+            clickChannel.noteOn(accent ? ACCENT_CLICK : CLICK, VELOCITY);
+        }
     }
 
     private final int LOW_C_NOTE_NUMBER = 48;
     private final int VELOCITY = 100;
+    private final int PERCUSSION_CHANNEL = 9;
+    private final int ACCENT_CLICK = 76;    // hi wood block
+    private final int CLICK = 77;           // low wood block
 }
\ No newline at end of file
@@ -9,7 +9,8 @@ import java.util.ArrayList;
 public class MelodyMaker {
 
     private ArrayList<Integer> melody = new ArrayList<Integer>();
-    private int[] scalePattern;
+    private Scales scale;
+    private Exercise exercise;
     private int i = 0;
     private int melodyLength;
     private int firstNote;
@@ -17,7 +18,7 @@ public class MelodyMaker {
     // set initial values
     // these must match the initial control settings in the window!
     public MelodyMaker() {
-        setTonality(MAJOR);
+        setTonality(Scales.MAJOR.ordinal());
         setLength(3);
         setKey(0);
     }
@@ -53,24 +54,49 @@ public class MelodyMaker {
         return melody.get(i++);
     }
 
+    /**
+     * Returns the next note in the current melody without moving the 
+     * melody forward.
+     * @return the next note in the current melody
+     */
+    public int peekNextNote() {
+        return melody.get(i);
+    }
+
+    /**
+     * Returns true if the melody is on its first note.
+     * @return true if the melody is on its first note
+     */
+    public boolean isFirstNote() {
+        return i == 0;
+    }
+
     /**
      * Sets the tonality of the melody's scale.
-     * @param tonality the tonality of the melody
+     * @param tonality the index of the scale in Scales (e.g., 0 = major)
      */
     public void setTonality(int tonality) {
-        int[] majorScale = {0, 2, 4, 5, 7, 9, 11, 12};
-        int[] minorScale = {0, 2, 3, 5, 7, 8, 10, 12};
-        int[] chromaticScale = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
-
-        if (tonality == MAJOR) {
-            scalePattern = majorScale;
-        } else if (tonality == MINOR) {
-            scalePattern = minorScale;
-        } else if (tonality == CHROMATIC) {
-            scalePattern = chromaticScale;
-        } else {
+        Scales[] scales = Scales.values();
+        if (tonality < 0 || tonality >= scales.length)
             throw new IllegalArgumentException();
-        }
+        scale = scales[tonality];
+    }
+
+    /**
+     * Sets the exercise that creates the melodies, or null to create 
+     * random melodies from the current scale.
+     * @param exercise the exercise that creates the melodies
+     */
+    public void setExercise(Exercise exercise) {
+        this.exercise = exercise;
+    }
+
+    /**
+     * Gets the exercise that creates the melodies.
+     * @return the exercise, or null if melodies are random
+     */
+    public Exercise getExercise() {
+        return exercise;
     }
 
     /**
@@ -94,10 +120,17 @@ public class MelodyMaker {
      */
     public void createMelody() {
         clearMelody();
+        if (exercise != null) {
+            exercise.createQuestion(firstNote);
+            for (int i = 0; i < exercise.getNoteCount(); i++) {
+                melody.add(exercise.getNote(i));
+            }
+            return;
+        }
         melody.add(firstNote);
         for (int i = 0; i < melodyLength-1; i++) {
             while (true) {
-                int next = scalePattern[(int) (Math.random()*scalePattern.length)] + firstNote;
+                int next = scale.getNote((int) (Math.random()*scale.size())) + firstNote;
                 if (next != melody.get(i)) {
                     melody.add(next);
                     break;
@@ -130,8 +163,4 @@ public class MelodyMaker {
         restartMelody();
         melody.clear();
     }
-
-    private final int MAJOR = 0;
-    private final int MINOR = 1;
-    private final int CHROMATIC = 2;
 }
\ No newline at end of file
@@ -4,7 +4,54 @@
  * AUTOPLAY = Program is currently playing a melody on the piano.
  * RECITE = User is expected to repeat the melody just heard.
  * IDLE = Piano can be played, but user is not expected to repeat the melody.
+ * 
+ * The Piano moves between states only by handling an Event. The next state 
+ * for each state and event is looked up in a fixed table.
  */
 public enum Modes {
-    AUTOPLAY, RECITE, IDLE;
+    AUTOPLAY(false), RECITE(true), IDLE(true);
+
+    /*
+     * Things that happen to the Piano.
+     * 
+     * PLAY = A melody starts being automatically played.
+     * STOP = The automatically played melody is stopped early.
+     * NOTE = The user plays or sings a note. No state changes on a note; 
+     *     it is handled so that all user input goes through the table.
+     * COMPLETE = A melody finishes being played or recited.
+     */
+    public enum Event {
+        PLAY, STOP, NOTE, COMPLETE;
+    }
+
+    private final boolean acceptsInput;
+
+    Modes(boolean acceptsInput) {
+        this.acceptsInput = acceptsInput;
+    }
+
+    /**
+     * Returns true if the user can play the piano in this state.
+     * @return true if the user can play the piano in this state
+     */
+    public boolean acceptsInput() {
+        return acceptsInput;
+    }
+
+    /**
+     * Returns the state that follows this one when an event happens.
+     * @param event the event that happened
+     * @return the next state, which may be this state
+     */
+    public Modes next(Event event) {
+        return TRANSITIONS[ordinal()][event.ordinal()];
+    }
+
+    // rows follow the order of the states, columns the order of the events
+    private static final Modes[][] TRANSITIONS = {
+        //             PLAY      STOP    NOTE      COMPLETE
+        /* AUTOPLAY */ {AUTOPLAY, RECITE, AUTOPLAY, RECITE},
+        /* RECITE   */ {AUTOPLAY, RECITE, RECITE,   IDLE},
+        /* IDLE     */ {AUTOPLAY, IDLE,   IDLE,     IDLE}
+    };
 }
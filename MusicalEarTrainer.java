@@ -18,15 +18,27 @@ public class MusicalEarTrainer extends JFrame implements ActionListener,
 ItemListener, ChangeListener, PropertyChangeListener {
 
     JCheckBox showBox;
+    JCheckBox micBox;
+    JCheckBox metronomeBox;
+    JCheckBox countInBox;
     JButton playButton;
+    JButton checkButton;
+    JLabel resultLabel = new JLabel(" ");
+
+    // whether an exercise question has been heard and not yet answered
+    boolean isAnswerable;
     Piano piano;
     String[] keyArray = {"Low C", "C#", "D", "D#", "E", "F", "F#", 
             "G", "G#", "A", "A#", "B", "Mid C"};
     JComboBox<String> keyList = new JComboBox<String>(keyArray);    
-    String[] tonalityArray = {"Major", "Minor", "Chromatic"};
+    String[] tonalityArray = Scales.getNames();
     JComboBox<String> tonalityList = new JComboBox<String>(tonalityArray);   
     JSpinner lengthSpinner = new JSpinner(new SpinnerNumberModel(3, 2, 20, 1));
     JSpinner tempoSpinner = new JSpinner(new SpinnerNumberModel(160, 60, 480, 1));  
+    Exercise[] exercises = {new IntervalExercise(), new ChordExercise(), 
+            new ScaleExercise()};
+    JComboBox<String> exerciseList = new JComboBox<String>();
+    JComboBox<String> answerList = new JComboBox<String>();
 
     // Initialize window and add keyboard
     private MusicalEarTrainer() {
@@ -57,18 +69,46 @@ ItemListener, ChangeListener, PropertyChangeListener {
         GridBagConstraints c = new GridBagConstraints();
         c.gridx = 0;
         c.gridy = 0;
-        c.gridwidth = 2;
+        c.gridwidth = 5;
         c.weightx = 0.5;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.insets = new Insets(5, 5, 5, 5);
         pane.add(melodyGroup, c);
 
-        // add check box
-        showBox = new JCheckBox("Show first note only");
+        // add check boxes
+        micBox = new JCheckBox("Sing back with microphone");
         c = new GridBagConstraints();
         c.gridx = 0;
         c.gridy = 1;
         c.weightx = 1;
+        c.anchor = GridBagConstraints.LINE_START;
+        c.insets = new Insets(0, 7, 0, 0);
+        micBox.setSelected(false);
+        pane.add(micBox, c);
+
+        metronomeBox = new JCheckBox("Metronome");
+        c = new GridBagConstraints();
+        c.gridx = 1;
+        c.gridy = 1;
+        c.weightx = 0;
+        c.anchor = GridBagConstraints.LINE_END;
+        metronomeBox.setSelected(false);
+        pane.add(metronomeBox, c);
+
+        countInBox = new JCheckBox("Count-in");
+        c = new GridBagConstraints();
+        c.gridx = 2;
+        c.gridy = 1;
+        c.weightx = 0;
+        c.anchor = GridBagConstraints.LINE_END;
+        countInBox.setSelected(false);
+        pane.add(countInBox, c);
+
+        showBox = new JCheckBox("Show first note only");
+        c = new GridBagConstraints();
+        c.gridx = 3;
+        c.gridy = 1;
+        c.weightx = 0;
         c.anchor = GridBagConstraints.LINE_END;
         c.insets = new Insets(0, 0, 0, 10);
         showBox.setSelected(false);
@@ -78,19 +118,48 @@ ItemListener, ChangeListener, PropertyChangeListener {
         playButton = new JButton("Play New");
         playButton.setMnemonic(KeyEvent.VK_P);
         c = new GridBagConstraints();
-        c.gridx = 1;
+        c.gridx = 4;
         c.gridy = 1;
         c.weightx = 0;
         c.anchor = GridBagConstraints.LINE_END;
         c.insets = new Insets(0, 0, 0, 7);
         pane.add(playButton, c);
 
+        // create exercise group box and add components
+        JPanel exerciseGroup = new JPanel();
+        exerciseGroup.setBorder(BorderFactory.createTitledBorder("Exercise"));
+        exerciseList.addItem("Melody");
+        for (Exercise exercise : exercises) {
+            exerciseList.addItem(exercise.getName());
+        }
+        exerciseGroup.add(new JLabel("Exercise: "));
+        exerciseGroup.add(exerciseList);
+        exerciseGroup.add(new Box.Filler(dim, dim, dim));
+        exerciseGroup.add(new JLabel("Answer: "));
+        exerciseGroup.add(answerList);
+        checkButton = new JButton("Check");
+        checkButton.setMnemonic(KeyEvent.VK_C);
+        exerciseGroup.add(checkButton);
+        exerciseGroup.add(new Box.Filler(dim, dim, dim));
+        exerciseGroup.add(resultLabel);
+        setEnabledAnswer(false);
+
+        // add exercise group box to pane
+        c = new GridBagConstraints();
+        c.gridx = 0;
+        c.gridy = 2;
+        c.gridwidth = 5;
+        c.weightx = 0.5;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.insets = new Insets(5, 5, 0, 5);
+        pane.add(exerciseGroup, c);
+
         // add piano
         piano = new Piano();
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 2;
-        c.gridwidth = 2;
+        c.gridy = 3;
+        c.gridwidth = 5;
         c.weightx = 0.5;
         c.weighty = 0.5;
         c.fill = GridBagConstraints.HORIZONTAL;
@@ -101,22 +170,72 @@ ItemListener, ChangeListener, PropertyChangeListener {
         // add interactions
         piano.addPropertyChangeListener(this);
         playButton.addActionListener(this);
+        checkButton.addActionListener(this);
+        exerciseList.addActionListener(this);
         keyList.addActionListener(this);
         tonalityList.addActionListener(this);
         tempoSpinner.addChangeListener(this);
         lengthSpinner.addChangeListener(this);
         showBox.addItemListener(this);
+        micBox.addItemListener(this);
+        metronomeBox.addItemListener(this);
+        countInBox.addItemListener(this);
 
         getContentPane().add(pane);
     }
 
     // enable/disable all controls except for the button
     private void setEnabledControls(boolean isEnabled) {
-        tonalityList.setEnabled(isEnabled);
+        boolean isMelody = piano.getMelodyMaker().getExercise() == null;
+        tonalityList.setEnabled(isEnabled && isMelody);
         keyList.setEnabled(isEnabled);
         showBox.setEnabled(isEnabled);
+        micBox.setEnabled(isEnabled);
+        metronomeBox.setEnabled(isEnabled);
+        countInBox.setEnabled(isEnabled);
         tempoSpinner.setEnabled(isEnabled);
-        lengthSpinner.setEnabled(isEnabled);
+        lengthSpinner.setEnabled(isEnabled && isMelody);
+        exerciseList.setEnabled(isEnabled);
+        setEnabledAnswer(isEnabled && isAnswerable);
+    }
+
+    // enable/disable the controls for answering an exercise
+    private void setEnabledAnswer(boolean isEnabled) {
+        answerList.setEnabled(isEnabled);
+        checkButton.setEnabled(isEnabled);
+    }
+
+    // use the selected exercise, or random melodies if none is selected
+    private void setExercise(int index) {
+        Exercise exercise = index == 0 ? null : exercises[index - 1];
+        piano.getMelodyMaker().setExercise(exercise);
+        answerList.removeAllItems();
+        if (exercise != null) {
+            for (String answer : exercise.getAnswers()) {
+                answerList.addItem(answer);
+            }
+        }
+        resultLabel.setText(" ");
+        setEnabledControls(true);
+    }
+
+    // a new question will be created; it cannot be answered until heard
+    private void discardQuestion() {
+        isAnswerable = false;
+        setEnabledAnswer(false);
+    }
+
+    // grade the selected answer; a new question follows a correct answer
+    private void checkAnswer() {
+        Exercise exercise = piano.getMelodyMaker().getExercise();
+        if (exercise.isCorrectAnswer(answerList.getSelectedIndex())) {
+            resultLabel.setText("Correct!");
+            discardQuestion();
+            piano.setRepeatMelody(false);
+            playButton.setText("Play New");
+        } else {
+            resultLabel.setText("Try again");
+        }
     }
 
     // listen to the button and drop-down lists
@@ -126,26 +245,38 @@ ItemListener, ChangeListener, PropertyChangeListener {
             if (piano.getMode() == Modes.AUTOPLAY ) {
                 piano.stopMelody();
             } else {
+                resultLabel.setText(" ");
                 piano.playMelody();
             }
+        } else if (e.getSource() == checkButton) {
+            checkAnswer();
         } else {
             if (e.getSource() == keyList)
                 piano.getMelodyMaker().setKey(keyList.getSelectedIndex());
             else if (e.getSource() == tonalityList) 
                 piano.getMelodyMaker().setTonality(tonalityList.getSelectedIndex());
+            else if (e.getSource() == exerciseList)
+                setExercise(exerciseList.getSelectedIndex());
+            discardQuestion();
             piano.setRepeatMelody(false);
             piano.getMelodyMaker().createMelody();
             playButton.setText("Play New");
         }
     }
 
-    // listen to the check box
+    // listen to the check boxes
     @Override
     public void itemStateChanged(ItemEvent e) {
-        if (e.getStateChange() == ItemEvent.SELECTED) {
-            piano.setFirstNoteOnly(true);
+        boolean isSelected = e.getStateChange() == ItemEvent.SELECTED;
+        if (e.getSource() == micBox) {
+            if (!piano.setMicrophoneInput(isSelected))
+                micBox.setSelected(false);
+        } else if (e.getSource() == metronomeBox) {
+            piano.setMetronome(isSelected);
+        } else if (e.getSource() == countInBox) {
+            piano.setCountIn(isSelected);
         } else {
-            piano.setFirstNoteOnly(false);
+            piano.setFirstNoteOnly(isSelected);
         }
     }   
 
@@ -158,6 +289,7 @@ ItemListener, ChangeListener, PropertyChangeListener {
         } else if (source == tempoSpinner) {
             piano.setTempo((int)source.getValue());
         }
+        discardQuestion();
         piano.setRepeatMelody(false);
         piano.getMelodyMaker().createMelody();
         playButton.setText("Play New");
@@ -169,11 +301,16 @@ ItemListener, ChangeListener, PropertyChangeListener {
             setEnabledControls(false);
             playButton.setText("Stop");
         } else if (e.getNewValue() == Modes.RECITE) {
+            isAnswerable = piano.getMelodyMaker().getExercise() != null;
             setEnabledControls(true);
             playButton.setText("Repeat");
         } else {
             setEnabledControls(true);
             playButton.setText("Play New");
+            double timingError = piano.getTimingError();
+            if (timingError >= 0 && piano.getMelodyMaker().getExercise() == null)
+                resultLabel.setText("Timing: " + Math.round(timingError) 
+                        + " ms off the beat");
         }
     }
 
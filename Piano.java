@@ -9,10 +9,11 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Rectangle2D;
 import java.beans.*;
+import javax.sound.sampled.LineUnavailableException;
 import javax.swing.*;
 
 @SuppressWarnings("serial")
-class Piano extends JPanel implements MouseListener {
+class Piano extends JPanel implements MouseListener, PitchInput.NoteListener {
 
     // array of the piano keys
     Key keys[];
@@ -28,13 +29,49 @@ class Piano extends JPanel implements MouseListener {
     // MIDI synthesizer
     private MIDISynth synth;
 
-    // timer for auto-playing notes
+    // microphone input for singing melodies back
+    private PitchInput pitchInput = new PitchInput(this);
+
+    // sung notes (or SUNG_NOTE_END) queued by the audio thread for the EDT, 
+    // with the times they started
+    private int[] sungNotes;
+    private long[] sungTimes;
+    private volatile int sungWritten;
+    private volatile int sungRead;
+
+    // whether the sung note in progress is being graded, and the octaves 
+    // between the singer's voice and the keyboard
+    private boolean isSinging;
+    private int sungOctaveShift;
+
+    // a sung note that started with a metronome click, waiting to outlast it
+    private Timer sustainTimer;
+    private int pendingNote;
+    private long pendingStart;
+
+    // timer for auto-playing notes and clicks, re-armed for each beat
     private Timer timer;
 
+    // beat grid of the auto-played melody, and the next beat to play
+    private BeatClock clock = new BeatClock();
+    private int beat;
+
+    // whether to click every beat, and whether to click a bar before playing
+    private boolean metronome;
+    private boolean countIn;
+
+    // total distance of recited notes from the beat, in nanoseconds
+    private long timingError;
+    private int timedNotes;
+
     // whether to auto-play, evaluate user input, etc. (bound)
     private Modes mode;
     private PropertyChangeSupport rPcs = new PropertyChangeSupport(this);
 
+    // mode before the first of a batch of changes not yet sent to listeners
+    private Modes notifiedMode;
+    private boolean notifyPending;
+
     // whether to repeat the current melody or create a new one
     private boolean repeatMelody;
 
@@ -61,9 +98,26 @@ class Piano extends JPanel implements MouseListener {
             JOptionPane.showMessageDialog(this, "Could not access your computer's MIDI synthesizer.");
             System.exit(-1);
         }
-        setMode(Modes.IDLE);
+        sungNotes = new int[SUNG_QUEUE_SIZE];
+        sungTimes = new long[SUNG_QUEUE_SIZE];
+        mode = Modes.IDLE;
         repeatMelody = false;
         addMouseListener(this);
+        timer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                playBeat();
+            }
+        });
+        timer.setRepeats(false);
+        sustainTimer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (mode.acceptsInput() && synth.isQuiet(SYNTH_RELEASE))
+                    acceptSungNote(pendingNote, pendingStart);
+            }
+        });
+        sustainTimer.setRepeats(false);
         setPreferredSize(new Dimension((int)(WHITE_KEY_WIDTH*NUM_WHITE_KEYS+1), 
                 (int)(WHITE_KEY_HEIGHT+1)));
     }
@@ -133,55 +187,229 @@ class Piano extends JPanel implements MouseListener {
     }
 
     public void mousePressed(MouseEvent e) {
-        Point p = new Point(e.getX(), e.getY());       
+        if (!mode.acceptsInput())
+            return;
+        int keyID = getKeyAt(new Point(e.getX(), e.getY()));
+        if (keyID == -1)
+            return;
+        handle(Modes.Event.NOTE);
+        long pressNanos = System.nanoTime();
+        if (playNote(keyID))
+            recordTiming(pressNanos);
+    }
 
+    // returns the ID of the key at a point, or -1 if there is none
+    private int getKeyAt(Point p) {
         // check black keys first since they are on top of the white keys
         for (int i : sharps) {
-            if (keys[i].contains(p)) {
-                playNote(i);
-                return;
-            }
+            if (keys[i].contains(p))
+                return i;
         }
         for (int i : naturals) {
-            if (keys[i].contains(p)) {
-                playNote(i);
-                return;
-            }
+            if (keys[i].contains(p))
+                return i;
         }
+        return -1;
+    }
+
+    // play the note on the piano, color the key as appropriate; false if 
+    // the note was wrong
+    private boolean playNote(int keyID) {
+        boolean isGood = showNote(keyID);
+        synth.playNote(keyID);
+        return isGood;
     }
 
-    // play the note on the piano, color the key as appropriate
-    private void playNote(int keyID) {
+    // measure how far a correctly recited note is from the beat, while the 
+    // metronome is keeping it
+    private void recordTiming(long startNanos) {
+        if (mode == Modes.RECITE && metronome && timer.isRunning()) {
+            timingError += Math.abs(clock.getOffset(startNanos));
+            timedNotes++;
+        }
+    }
+
+    // only the attempt that completes the melody is timed
+    private void resetTiming() {
+        timingError = 0;
+        timedNotes = 0;
+    }
+
+    // evaluate the note and color the key as appropriate, without sound; 
+    // false if the note was wrong
+    private boolean showNote(int keyID) {
+        boolean isGood = true;
         if (mode == Modes.RECITE && !melodyMaker.isGoodNote(keyID)) {
             keys[keyID].setColor(Color.RED);
             melodyMaker.restartMelody();
+            resetTiming();
+            isGood = false;
         } else {
             keys[keyID].setColor(Color.LIGHT_GRAY);
         }
-        synth.playNote(keyID);
         if (mode == Modes.RECITE && melodyMaker.isLastNote())
             keys[keyID].setColor(Color.GREEN);
         repaint();
+        return isGood;
     }
 
     // clear information about which key is pressed and reset keyboard
     public void mouseReleased(MouseEvent e) {
+        if (mode.acceptsInput())
+            releaseNote();
+    }
+
+    // reset keyboard; finish the recital if the melody is complete
+    private void releaseNote() {
         endNote();
+        completeRecital();
+    }
+
+    // finish the recital if the melody is complete
+    private void completeRecital() {
         if (mode == Modes.RECITE && melodyMaker.isLastNote()) {
             melodyMaker.clearMelody();
-            setMode(Modes.IDLE);
+            handle(Modes.Event.COMPLETE);
         }
     }
 
     // stop playing the current note
     private void endNote() {
         synth.stopNote();
+        resetKeys();
+    }
+
+    // show all keys as not pressed
+    private void resetKeys() {
         for (Key key : keys) {
             key.resetColor();
         }
         repaint();
     }
 
+    /**
+     * Sets whether the user sings melodies back into the microphone instead
+     * of only playing them on the keyboard.
+     * @param on whether to listen to the microphone
+     * @return false if the microphone could not be accessed, otherwise true
+     */
+    public boolean setMicrophoneInput(boolean on) {
+        if (!on) {
+            pitchInput.stop();
+            return true;
+        }
+        try {
+            pitchInput.start();
+            return true;
+        } catch (LineUnavailableException e) {
+            JOptionPane.showMessageDialog(this, "Could not access your computer's microphone.");
+            return false;
+        }
+    }
+
+    // sung notes arrive on the audio thread; queue them for the EDT
+    @Override
+    public void noteStarted(int noteNumber, long startNanos) {
+        queueSungNote(noteNumber, startNanos);
+    }
+
+    @Override
+    public void noteEnded() {
+        queueSungNote(SUNG_NOTE_END, 0);
+    }
+
+    // drop the note if the EDT is so far behind that the queue is full
+    private void queueSungNote(int noteNumber, long startNanos) {
+        if (sungWritten - sungRead == SUNG_QUEUE_SIZE)
+            return;
+        sungNotes[sungWritten % SUNG_QUEUE_SIZE] = noteNumber;
+        sungTimes[sungWritten % SUNG_QUEUE_SIZE] = startNanos;
+        sungWritten++;
+        SwingUtilities.invokeLater(readSungNotes);
+    }
+
+    // handle every queued sung note, in order
+    private final Runnable readSungNotes = new Runnable() {
+        @Override
+        public void run() {
+            while (sungRead != sungWritten) {
+                int noteNumber = sungNotes[sungRead % SUNG_QUEUE_SIZE];
+                long startNanos = sungTimes[sungRead % SUNG_QUEUE_SIZE];
+                sungRead++;
+                if (noteNumber == SUNG_NOTE_END)
+                    sungNoteEnded();
+                else
+                    sungNoteStarted(noteNumber, startNanos);
+            }
+        }
+    };
+
+    // ignore the microphone while the piano is sounding, since it hears itself
+    private void sungNoteStarted(int noteNumber, long startNanos) {
+        if (!mode.acceptsInput() || !synth.isQuiet(SYNTH_RELEASE))
+            return;
+        if (isNearClick(startNanos)) {
+            pendingNote = noteNumber;
+            pendingStart = startNanos;
+            long wait = startNanos + CLICK_SUSTAIN - System.nanoTime();
+            sustainTimer.setInitialDelay((int) Math.max(0, 
+                    (wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI));
+            sustainTimer.restart();
+            return;
+        }
+        acceptSungNote(noteNumber, startNanos);
+    }
+
+    // the metronome's clicks are short, but the microphone hears them, and 
+    // a click can hold a steady pitch for as long as the detector needs; a 
+    // note starting with a click only counts once it outlasts the click
+    private boolean isNearClick(long startNanos) {
+        if (mode != Modes.RECITE || !metronome || !timer.isRunning())
+            return false;
+        long offset = clock.getOffset(startNanos);
+        return offset > -CLICK_LEAD && offset < CLICK_LENGTH;
+    }
+
+    // grade a sung note
+    private void acceptSungNote(int noteNumber, long startNanos) {
+        isSinging = true;
+        handle(Modes.Event.NOTE);
+        if (showNote(toKeyID(noteNumber)))
+            recordTiming(startNanos);
+    }
+
+    // sung notes never stop the synth, which may be sounding a clicked key
+    private void sungNoteEnded() {
+        if (sustainTimer.isRunning()) {
+            sustainTimer.stop();
+            return;
+        }
+        if (!isSinging)
+            return;
+        isSinging = false;
+        if (mode.acceptsInput() && synth.isQuiet(SYNTH_RELEASE)) {
+            resetKeys();
+            completeRecital();
+        }
+    }
+
+    // map a sung note onto the keyboard; the octave is set by the first 
+    // note of a recital, so the melody can be sung in any octave
+    private int toKeyID(int noteNumber) {
+        int keyID = noteNumber - LOW_C_NOTE_NUMBER;
+        if (mode == Modes.RECITE && melodyMaker.isFirstNote() 
+                && melodyMaker.getMelodySize() > 0) {
+            int octaves = Math.round((melodyMaker.peekNextNote() - keyID) / 12f);
+            sungOctaveShift = octaves * 12;
+        }
+        keyID += sungOctaveShift;
+        while (keyID < 0)
+            keyID += 12;
+        while (keyID >= keys.length)
+            keyID -= 12;
+        return keyID;
+    }
+
     /**
      * Sets whether the first note only will be shown during an automatically 
      * played melody, or whether all notes will be shown.
@@ -207,29 +435,59 @@ class Piano extends JPanel implements MouseListener {
     public void playMelody() {
         if (!repeatMelody) 
             melodyMaker.createMelody();
-        setMode(Modes.AUTOPLAY);
-        timer = new Timer(getTempo(tempo), new ActionListener() {
-            private int i = 0;
+        handle(Modes.Event.PLAY);
+        clock.start(System.nanoTime() + INITIAL_DELAY, tempo);
+        beat = 0;
+        scheduleBeat();
+    }
 
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (i == 0)
-                    playNote(melodyMaker.getNextNote());
-                else if (i < melodyMaker.getMelodySize()) {
-                    endNote();
-                    if (firstNoteOnly) synth.playNote(melodyMaker.getNextNote());
-                    else playNote(melodyMaker.getNextNote());
-                }
-                else {
-                    endNote();
-                    timer.stop();
-                    setMode(Modes.RECITE);
-                }
-                i++;
+    // play whatever falls on the current beat, then wait for the next one
+    private void playBeat() {
+        // if the EDT was busy past a beat, an auto-played melody moves the 
+        // rest of its beats later so no note is lost; while reciting, the 
+        // late click is skipped so the grid being graded stays put
+        long late = System.nanoTime() - clock.getBeatTime(beat);
+        boolean isLate = late > LATE_TOLERANCE;
+        if (isLate && mode == Modes.AUTOPLAY) {
+            clock.delay(late);
+            isLate = false;
+        }
+
+        int i = beat - getCountInBeats();
+        if (!isLate && (metronome || i < 0))
+            synth.playClick(beat % BEATS_PER_BAR == 0);
+        if (mode == Modes.AUTOPLAY) {
+            if (i == 0)
+                playNote(melodyMaker.getNextNote());
+            else if (i > 0 && i < melodyMaker.getMelodySize()) {
+                endNote();
+                if (firstNoteOnly) synth.playNote(melodyMaker.getNextNote());
+                else playNote(melodyMaker.getNextNote());
             }
-        });
-        timer.setInitialDelay(100);
-        timer.start();
+            else if (i == melodyMaker.getMelodySize()) {
+                endNote();
+                handle(Modes.Event.COMPLETE);
+            }
+        }
+
+        // the metronome keeps the beat while the user recites
+        if (mode == Modes.AUTOPLAY || (mode == Modes.RECITE && metronome)) {
+            beat++;
+            scheduleBeat();
+        }
+    }
+
+    // wait until the current beat is due, rounding up to whole milliseconds
+    private void scheduleBeat() {
+        long wait = clock.getBeatTime(beat) - System.nanoTime();
+        timer.setInitialDelay((int) Math.max(0, 
+                (wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI));
+        timer.restart();
+    }
+
+    // number of clicks before the first note
+    private int getCountInBeats() {
+        return countIn ? BEATS_PER_BAR : 0;
     }
 
     /**
@@ -237,26 +495,42 @@ class Piano extends JPanel implements MouseListener {
      */
     public void stopMelody() {
         endNote();
-        timer.stop();
-        setMode(Modes.RECITE);
+        if (!metronome)
+            timer.stop();
+        handle(Modes.Event.STOP);
     }
 
-    // set the mode for this object; let any registered listeners know
-    private void setMode(Modes newMode) {
-        Modes oldMode = mode;
+    // move to the mode that follows an event; let any registered listeners 
+    // know once the current batch of events has been handled
+    private void handle(Modes.Event event) {
+        Modes newMode = mode.next(event);
+        if (newMode == mode)
+            return;
+        if (!notifyPending) {
+            notifiedMode = mode;
+            notifyPending = true;
+            SwingUtilities.invokeLater(fireModeChange);
+        }
         mode = newMode;
-        rPcs.firePropertyChange("mode", oldMode, mode);
         if (mode == Modes.RECITE) {
             melodyMaker.restartMelody();
-            addMouseListener(this);
-        } else if (mode == Modes.AUTOPLAY){
-            removeMouseListener(this);
+            resetTiming();
+        } else if (mode == Modes.AUTOPLAY) {
             setRepeatMelody(true);
-        } else if (mode == Modes.IDLE){
+        } else if (mode == Modes.IDLE) {
             setRepeatMelody(false);
         }
     }
 
+    // send one change event for a batch; nothing if the mode came back
+    private final Runnable fireModeChange = new Runnable() {
+        @Override
+        public void run() {
+            notifyPending = false;
+            rPcs.firePropertyChange("mode", notifiedMode, mode);
+        }
+    };
+
     /**
      * Gets the current mode of this object (AUTOPLAY, etc.)
      * @return the current mode of this object
@@ -273,6 +547,10 @@ class Piano extends JPanel implements MouseListener {
     public void setRepeatMelody(boolean repeat) {
         melodyMaker.restartMelody();
         repeatMelody = repeat;
+
+        // the metronome's beat belongs to the melody being discarded
+        if (!repeat && mode != Modes.AUTOPLAY)
+            timer.stop();
     }
 
 
@@ -291,11 +569,37 @@ class Piano extends JPanel implements MouseListener {
 
     public void setTempo(int newBpm) {
         tempo = newBpm;     
+        if (mode != Modes.AUTOPLAY)
+            timer.stop();
     }
 
-    // returns the tempo of the auto-play, in milliseconds per note
-    private int getTempo(int bpm) {
-        return (int)(1/(bpm/60.0)*1000);
+    /**
+     * Sets whether a metronome clicks on every beat while a melody is played 
+     * and recited. Recited notes are only timed when the metronome is on.
+     * @param on whether the metronome clicks
+     */
+    public void setMetronome(boolean on) {
+        metronome = on;
+    }
+
+    /**
+     * Sets whether one bar of clicks is played before a melody.
+     * @param on whether to count in before a melody
+     */
+    public void setCountIn(boolean on) {
+        countIn = on;
+    }
+
+    /**
+     * Returns the average distance of the notes in the last recital from 
+     * the beat.
+     * @return the average distance in milliseconds, or -1 if no notes 
+     * were timed
+     */
+    public double getTimingError() {
+        if (timedNotes == 0)
+            return -1;
+        return (double) timingError / timedNotes / NANOS_PER_MILLI;
     }
 
     // each instance of this class represents a key in the piano
@@ -327,6 +631,19 @@ class Piano extends JPanel implements MouseListener {
         }
     }
 
+    private final int LOW_C_NOTE_NUMBER = 48;
+    private final int SUNG_QUEUE_SIZE = 16;
+    private final int SUNG_NOTE_END = -1;
+    private final long SYNTH_RELEASE = 500000000;  // 500 ms
+    private final long CLICK_LEAD = 50000000;      // 50 ms, about one block
+    private final long CLICK_LENGTH = 100000000;   // 100 ms
+    private final long CLICK_SUSTAIN = 250000000;  // 250 ms
+
+    private final long INITIAL_DELAY = 100000000;   // 100 ms
+    private final long NANOS_PER_MILLI = 1000000;
+    private final long LATE_TOLERANCE = 50000000;  // 50 ms
+    private final int BEATS_PER_BAR = 4;
+
     private final int NUM_WHITE_KEYS = 15;
     private final double WHITE_KEY_WIDTH = 45;
     private final double WHITE_KEY_HEIGHT = 175;
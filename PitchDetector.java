@@ -0,0 +1,122 @@
+/*
+ * A real-time pitch detector based on the YIN algorithm (de Cheveigne and
+ * Kawahara, 2002). It estimates the fundamental frequency of a block of
+ * audio samples and maps it to a MIDI note number.
+ * All working buffers are allocated once in the constructor so that
+ * detecting pitch does not create any garbage.
+ */
+
+public class PitchDetector {
+
+    private float sampleRate;
+
+    // cumulative mean normalized difference function, one slot per lag
+    private float[] yinBuffer;
+
+    /**
+     * Create a new PitchDetector for blocks of a fixed size.
+     * @param sampleRate the sample rate of the audio, in Hz
+     * @param bufferSize the number of samples in each block to analyze
+     */
+    public PitchDetector(float sampleRate, int bufferSize) {
+        this.sampleRate = sampleRate;
+        yinBuffer = new float[bufferSize / 2];
+    }
+
+    /**
+     * Returns the fundamental frequency of a block of samples.
+     * @param samples the block of samples; its length must be at least
+     * the buffer size given to the constructor
+     * @return the frequency in Hz, or -1 if no clear pitch was found
+     */
+    public float getPitch(float[] samples) {
+        if (rms(samples) < SILENCE_THRESHOLD)
+            return -1;
+
+        difference(samples);
+        cumulativeMeanNormalizedDifference();
+        int tau = absoluteThreshold();
+        if (tau == -1)
+            return -1;
+        return sampleRate / parabolicInterpolation(tau);
+    }
+
+    /**
+     * Returns the MIDI note number closest to a frequency. The note may be 
+     * outside the range of the piano, since voices often are.
+     * @param frequency the frequency in Hz
+     * @return the MIDI note number (60 = middle C), or -1 if the frequency 
+     * is not positive
+     */
+    public static int frequencyToNoteNumber(float frequency) {
+        if (frequency <= 0)
+            return -1;
+        double noteNumber = 69 + 12 * Math.log(frequency / 440.0) / Math.log(2);
+        return (int) Math.round(noteNumber);
+    }
+
+    // root mean square of the block, used to ignore background noise
+    private float rms(float[] samples) {
+        float sum = 0;
+        int n = yinBuffer.length * 2;
+        for (int i = 0; i < n; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return (float) Math.sqrt(sum / n);
+    }
+
+    // step 2: squared difference of the signal and itself delayed by tau
+    private void difference(float[] samples) {
+        for (int tau = 0; tau < yinBuffer.length; tau++) {
+            float sum = 0;
+            for (int i = 0; i < yinBuffer.length; i++) {
+                float delta = samples[i] - samples[i + tau];
+                sum += delta * delta;
+            }
+            yinBuffer[tau] = sum;
+        }
+    }
+
+    // step 3: normalize each lag by the mean of the smaller lags
+    private void cumulativeMeanNormalizedDifference() {
+        float runningSum = 0;
+        yinBuffer[0] = 1;
+        for (int tau = 1; tau < yinBuffer.length; tau++) {
+            runningSum += yinBuffer[tau];
+            if (runningSum == 0)
+                yinBuffer[tau] = 1;
+            else
+                yinBuffer[tau] *= tau / runningSum;
+        }
+    }
+
+    // step 4: first dip below the threshold, followed down to its minimum
+    private int absoluteThreshold() {
+        for (int tau = 2; tau < yinBuffer.length; tau++) {
+            if (yinBuffer[tau] < YIN_THRESHOLD) {
+                while (tau + 1 < yinBuffer.length
+                        && yinBuffer[tau + 1] < yinBuffer[tau]) {
+                    tau++;
+                }
+                return tau;
+            }
+        }
+        return -1;
+    }
+
+    // step 5: refine the lag between samples using its two neighbours
+    private float parabolicInterpolation(int tau) {
+        if (tau < 1 || tau + 1 >= yinBuffer.length)
+            return tau;
+        float s0 = yinBuffer[tau - 1];
+        float s1 = yinBuffer[tau];
+        float s2 = yinBuffer[tau + 1];
+        float denominator = 2 * (2 * s1 - s2 - s0);
+        if (denominator == 0)
+            return tau;
+        return tau + (s2 - s0) / denominator;
+    }
+
+    private static final float YIN_THRESHOLD = 0.15f;
+    private static final float SILENCE_THRESHOLD = 0.01f;
+}
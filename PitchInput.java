@@ -0,0 +1,254 @@
+/*
+ * This class listens to singing, either live through the computer's
+ * microphone or from a recorded WAV file, and reports the notes that are
+ * sung. A PitchDetector finds the pitch of each block of audio, and a
+ * note is only reported once its pitch has held steady for a few blocks.
+ * The read/detect loop reuses the same buffers for every block.
+ */
+
+import java.io.*;
+import javax.sound.sampled.*;
+
+public class PitchInput {
+
+    /**
+     * Receives the notes detected by a PitchInput. Notes from the microphone
+     * are reported on the audio thread, not on the event-dispatching thread.
+     */
+    public interface NoteListener {
+        /**
+         * Called when a new note starts. The note is reported a few blocks 
+         * after it starts, once its pitch has held steady.
+         * @param noteNumber the MIDI note number of the sung note
+         * @param startNanos when the note started; from System.nanoTime() 
+         * for the microphone, or from the start of a recording
+         */
+        void noteStarted(int noteNumber, long startNanos);
+
+        /**
+         * Called when the current note stops.
+         */
+        void noteEnded();
+    }
+
+    private NoteListener listener;
+    private PitchDetector detector = new PitchDetector(SAMPLE_RATE, BUFFER_SIZE);
+    private byte[] bytes = new byte[BUFFER_SIZE * 2];
+    private float[] samples = new float[BUFFER_SIZE];
+
+    // microphone line and the thread reading from it
+    private TargetDataLine line;
+    private Thread thread;
+    private volatile boolean running;
+
+    // the note currently being sung, and the candidate waiting to settle
+    private int currentNote = -1;
+    private int candidateNote = -1;
+    private int candidateCount = 0;
+    private long candidateStart;
+
+    // frames read from the current stream, for timing recordings
+    private long framesRead;
+
+    /**
+     * Create a new PitchInput that reports notes to a listener.
+     * @param listener the object to tell about sung notes
+     */
+    public PitchInput(NoteListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start listening to the microphone on a new thread.
+     * @throws LineUnavailableException if the microphone could not be opened,
+     * or if the previous thread has not finished yet
+     */
+    public void start() throws LineUnavailableException {
+        if (running)
+            return;
+        if (thread != null) {
+            join();
+            if (thread != null)
+                throw new LineUnavailableException();
+        }
+        final TargetDataLine newLine = AudioSystem.getTargetDataLine(FORMAT);
+        newLine.open(FORMAT, bytes.length * 4);
+        newLine.start();
+        line = newLine;
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listen(newLine);
+            }
+        }, "PitchInput");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop listening to the microphone. This does not wait for the listening
+     * thread, which finishes and closes the line on its own.
+     */
+    public void stop() {
+        running = false;
+        if (line != null) {
+            line.stop();
+            line = null;
+        }
+    }
+
+    // wait a while for the listening thread to finish, and forget it if it did
+    private void join() {
+        try {
+            thread.join(JOIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive())
+            thread = null;
+    }
+
+    /**
+     * Returns true if this object is listening to the microphone.
+     * @return true if this object is listening to the microphone
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    // read from the microphone until stopped, then close it
+    private void listen(TargetDataLine line) {
+        try {
+            process(new AudioInputStream(line), true);
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            line.close();
+        }
+    }
+
+    /**
+     * Detects the notes in a recorded audio file, reporting them to the
+     * listener on the calling thread. This allows the detector to be
+     * checked against recordings without a microphone. It cannot be used 
+     * while listening to the microphone.
+     * @param file the recording (e.g., a WAV file)
+     * @throws IOException if the file could not be read
+     * @throws UnsupportedAudioFileException if the file's format is not
+     * supported
+     */
+    public void analyze(File file) throws IOException, UnsupportedAudioFileException {
+        if (running || (thread != null && thread.isAlive()))
+            throw new IllegalStateException();
+        AudioInputStream in = AudioSystem.getAudioInputStream(file);
+        try {
+            if (!in.getFormat().matches(FORMAT))
+                in = AudioSystem.getAudioInputStream(FORMAT, in);
+            running = true;
+            process(in, false);
+        } finally {
+            running = false;
+            in.close();
+        }
+    }
+
+    // detect pitch block by block until the stream ends or input is stopped
+    private void process(AudioInputStream in, boolean isLive) throws IOException {
+        resetNote();
+        framesRead = 0;
+        while (running) {
+            if (!readBlock(in))
+                break;
+            long blockStart = isLive ? getLiveBlockStart(in) 
+                    : framesToNanos(framesRead - BUFFER_SIZE);
+            update(PitchDetector.frequencyToNoteNumber(detector.getPitch(samples)), 
+                    blockStart);
+        }
+        if (currentNote != -1)
+            listener.noteEnded();
+        resetNote();
+    }
+
+    // fill the sample buffer with one block; false at the end of the stream,
+    // or once input is stopped (a stopped line reads 0 bytes, not -1)
+    private boolean readBlock(AudioInputStream in) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int n = in.read(bytes, offset, bytes.length - offset);
+            if (n <= 0 || !running)
+                return false;
+            offset += n;
+        }
+        framesRead += BUFFER_SIZE;
+
+        // 16-bit signed little-endian to floats between -1 and 1
+        for (int i = 0; i < samples.length; i++) {
+            int sample = (bytes[2*i + 1] << 8) | (bytes[2*i] & 0xff);
+            samples[i] = sample / 32768f;
+        }
+        return true;
+    }
+
+    // when the block just read from the microphone started; the line still 
+    // holds the audio recorded since then
+    private long getLiveBlockStart(AudioInputStream in) throws IOException {
+        long buffered = in.available() / FORMAT.getFrameSize();
+        return System.nanoTime() - framesToNanos(buffered + BUFFER_SIZE);
+    }
+
+    private long framesToNanos(long frames) {
+        return (long) (frames * NANOS_PER_SECOND / SAMPLE_RATE);
+    }
+
+    // report a note (or silence) once it has held for enough blocks
+    private void update(int noteNumber, long blockStart) {
+        if (noteNumber == candidateNote) {
+            candidateCount++;
+        } else {
+            candidateNote = noteNumber;
+            candidateCount = 1;
+            candidateStart = blockStart;
+        }
+
+        if (candidateNote != currentNote && candidateCount >= STABLE_BLOCKS) {
+            if (currentNote != -1)
+                listener.noteEnded();
+            currentNote = candidateNote;
+            if (currentNote != -1)
+                listener.noteStarted(currentNote, candidateStart);
+        }
+    }
+
+    // forget about any note in progress
+    private void resetNote() {
+        currentNote = -1;
+        candidateNote = -1;
+        candidateCount = 0;
+    }
+
+    // Print the notes sung in a recording, e.g. java PitchInput melody.wav
+    public static void main(String[] args) throws Exception {
+        PitchInput input = new PitchInput(new NoteListener() {
+
+            @Override
+            public void noteStarted(int noteNumber, long startNanos) {
+                System.out.println(noteNumber + " at " + startNanos / 1000000 + " ms");
+            }
+
+            @Override
+            public void noteEnded() { }
+        });
+        for (String name : args) {
+            input.analyze(new File(name));
+        }
+    }
+
+    private static final float SAMPLE_RATE = 44100;
+    private static final int BUFFER_SIZE = 2048;
+    private static final int STABLE_BLOCKS = 3;
+    private static final long JOIN_TIMEOUT = 500;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final AudioFormat FORMAT =
+            new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+}
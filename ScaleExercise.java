@@ -0,0 +1,42 @@
+/*
+ * An exercise in which the piano plays a scale or mode from the Scales 
+ * table, ascending, and the user names it.
+ */
+public class ScaleExercise implements Exercise {
+
+    private int root;
+    private Scales answer;
+
+    @Override
+    public String getName() {
+        return "Scales";
+    }
+
+    @Override
+    public String[] getAnswers() {
+        return Scales.getNames();
+    }
+
+    @Override
+    public void createQuestion(int root) {
+        this.root = root;
+        answer = SCALES[(int) (Math.random()*SCALES.length)];
+    }
+
+    @Override
+    public int getNoteCount() {
+        return answer.size();
+    }
+
+    @Override
+    public int getNote(int index) {
+        return root + answer.getNote(index);
+    }
+
+    @Override
+    public boolean isCorrectAnswer(int answer) {
+        return answer == this.answer.ordinal();
+    }
+
+    private static final Scales[] SCALES = Scales.values();
+}
@@ -0,0 +1,68 @@
+/*
+ * The scales and modes that melodies can be built from. Each scale is a 
+ * table of semitone offsets from its first note, ending on the octave.
+ * 
+ * The order of the first three (MAJOR, MINOR, CHROMATIC) must match the 
+ * tonality indexes used before modes were added.
+ */
+public enum Scales {
+    MAJOR("Major", 0, 2, 4, 5, 7, 9, 11, 12),
+    MINOR("Minor", 0, 2, 3, 5, 7, 8, 10, 12),
+    CHROMATIC("Chromatic", 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12),
+    HARMONIC_MINOR("Harmonic Minor", 0, 2, 3, 5, 7, 8, 11, 12),
+    MELODIC_MINOR("Melodic Minor", 0, 2, 3, 5, 7, 9, 11, 12),
+    DORIAN("Dorian", 0, 2, 3, 5, 7, 9, 10, 12),
+    PHRYGIAN("Phrygian", 0, 1, 3, 5, 7, 8, 10, 12),
+    LYDIAN("Lydian", 0, 2, 4, 6, 7, 9, 11, 12),
+    MIXOLYDIAN("Mixolydian", 0, 2, 4, 5, 7, 9, 10, 12),
+    LOCRIAN("Locrian", 0, 1, 3, 5, 6, 8, 10, 12),
+    MAJOR_PENTATONIC("Major Pentatonic", 0, 2, 4, 7, 9, 12),
+    MINOR_PENTATONIC("Minor Pentatonic", 0, 3, 5, 7, 10, 12),
+    BLUES("Blues", 0, 3, 5, 6, 7, 10, 12);
+
+    private final String name;
+    private final int[] pattern;
+
+    Scales(String name, int... pattern) {
+        this.name = name;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Returns the display name of this scale.
+     * @return the display name of this scale
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of notes in this scale, including the octave.
+     * @return the number of notes in this scale
+     */
+    public int size() {
+        return pattern.length;
+    }
+
+    /**
+     * Returns the offset of a note of this scale from its first note.
+     * @param degree the index of the note (0 = first note)
+     * @return the offset of the note, in semitones
+     */
+    public int getNote(int degree) {
+        return pattern[degree];
+    }
+
+    /**
+     * Returns the display names of all scales, in order.
+     * @return the display names of all scales
+     */
+    public static String[] getNames() {
+        Scales[] scales = values();
+        String[] names = new String[scales.length];
+        for (int i = 0; i < scales.length; i++) {
+            names[i] = scales[i].getName();
+        }
+        return names;
+    }
+}